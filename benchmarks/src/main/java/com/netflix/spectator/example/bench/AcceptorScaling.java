@@ -0,0 +1,52 @@
+package com.netflix.spectator.example.bench;
+
+import com.netflix.spectator.api.Clock;
+import com.netflix.spectator.api.DefaultRegistry;
+import com.netflix.spectator.api.Registry;
+import com.netflix.spectator.example.Server;
+
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures how the throughput of the example {@link Server} scales with the number of
+ * acceptors. For each acceptor count a server is started and a set of client threads send
+ * requests as fast as possible for a fixed duration. The total number of server threads is
+ * the same for each acceptor count, so any difference comes from the extra dispatchers
+ * rather than more workers. Client threads are spread evenly across the acceptors.
+ */
+public class AcceptorScaling {
+
+  private static final int[] ACCEPTOR_COUNTS = {1, 2, 4, 8};
+
+  private static final long WARMUP_SECONDS = 5;
+
+  public static void main(String[] args) throws Exception {
+    int threads = args.length > 0
+        ? Integer.parseInt(args[0])
+        : 4 * Runtime.getRuntime().availableProcessors();
+    long seconds = args.length > 1 ? Long.parseLong(args[1]) : 30;
+    int serverThreads = args.length > 2 ? Integer.parseInt(args[2]) : 16;
+
+    System.out.printf("%-10s %14s %14s %14s%n",
+        "acceptors", "server-threads", "client-threads", "requests/sec");
+    for (int count : ACCEPTOR_COUNTS) {
+      Registry registry = new DefaultRegistry(Clock.SYSTEM);
+      Server server = new Server(registry, count, serverThreads);
+      try {
+        List<URL> urls = new ArrayList<>();
+        for (InetSocketAddress addr : server.addresses()) {
+          urls.add(new URL("http://localhost:" + addr.getPort() + "/"));
+        }
+        LoadGenerator.run(urls, threads, WARMUP_SECONDS);
+        long requests = LoadGenerator.run(urls, threads, seconds);
+        System.out.printf("%-10d %14d %14d %14.1f%n",
+            count, serverThreads, threads, (double) requests / seconds);
+      } finally {
+        server.shutdown();
+      }
+    }
+  }
+}
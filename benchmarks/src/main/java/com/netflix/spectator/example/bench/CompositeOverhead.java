@@ -0,0 +1,165 @@
+package com.netflix.spectator.example.bench;
+
+import com.netflix.spectator.api.Clock;
+import com.netflix.spectator.api.CompositeRegistry;
+import com.netflix.spectator.api.Counter;
+import com.netflix.spectator.api.DefaultRegistry;
+import com.netflix.spectator.api.Id;
+import com.netflix.spectator.api.Registry;
+import com.netflix.spectator.api.Spectator;
+import com.netflix.spectator.api.Timer;
+import com.netflix.spectator.api.patterns.PolledMeter;
+import com.netflix.spectator.servo.ServoRegistry;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures the per-update cost of writing through the global {@link CompositeRegistry}
+ * compared with using the {@link ServoRegistry} directly. The composite modes use one servo
+ * registry plus zero or more additional default registries. Each mode is run in a separate
+ * JVM so the call sites only see a single registry type.
+ *
+ * <p>Results are reported for a cached counter, a cached timer, a counter that is looked up
+ * for each update, and polling of gauges registered with {@link PolledMeter}. Only the gauge
+ * polling is affected by the direct registry mode of the servo example.</p>
+ */
+public class CompositeOverhead {
+
+  private static final List<String> MODES = Arrays.asList(
+      "direct", "composite-1", "composite-2", "composite-4", "composite-8");
+
+  private static final int WARMUP_ITERATIONS = 5;
+  private static final int ITERATIONS = 10;
+
+  private static final int GAUGES = 100;
+
+  // Keep references to the gauge values so they do not get garbage collected
+  private static final List<AtomicLong> GAUGE_VALUES = new ArrayList<>();
+
+  private static long runCachedCounter(Registry registry, int n) {
+    Counter c = registry.counter("bench.counter");
+    long start = System.nanoTime();
+    for (int i = 0; i < n; ++i) {
+      c.increment();
+    }
+    return System.nanoTime() - start;
+  }
+
+  private static long runCachedTimer(Registry registry, int n) {
+    Timer t = registry.timer("bench.timer");
+    long start = System.nanoTime();
+    for (int i = 0; i < n; ++i) {
+      t.record(i, TimeUnit.MICROSECONDS);
+    }
+    return System.nanoTime() - start;
+  }
+
+  private static long runLookupCounter(Registry registry, int n) {
+    Id id = registry.createId("bench.counter").withTag("status", "200");
+    long start = System.nanoTime();
+    for (int i = 0; i < n; ++i) {
+      registry.counter(id).increment();
+    }
+    return System.nanoTime() - start;
+  }
+
+  /** Each call to update polls all of the gauges, so n is scaled down by the gauge count. */
+  private static long runGaugePoll(Registry registry, int n) {
+    long start = System.nanoTime();
+    for (int i = 0; i < n / GAUGES; ++i) {
+      PolledMeter.update(registry);
+    }
+    return System.nanoTime() - start;
+  }
+
+  private interface Task {
+    long run(Registry registry, int n);
+  }
+
+  /** Run the task several times and return the best result in nanoseconds per update. */
+  private static double measure(Registry registry, Task task, int n) {
+    for (int i = 0; i < WARMUP_ITERATIONS; ++i) {
+      task.run(registry, n);
+    }
+    long best = Long.MAX_VALUE;
+    for (int i = 0; i < ITERATIONS; ++i) {
+      best = Math.min(best, task.run(registry, n));
+    }
+    return (double) best / n;
+  }
+
+  private static Registry createRegistry(String mode) {
+    Registry servo = new ServoRegistry(Clock.SYSTEM);
+    if ("direct".equals(mode)) {
+      return servo;
+    } else if (mode.startsWith("composite-")) {
+      int count = Integer.parseInt(mode.substring("composite-".length()));
+      CompositeRegistry global = Spectator.globalRegistry();
+      global.add(servo);
+      for (int i = 1; i < count; ++i) {
+        global.add(new DefaultRegistry(Clock.SYSTEM));
+      }
+      return global;
+    } else {
+      throw new IllegalArgumentException("unknown mode: " + mode);
+    }
+  }
+
+  private static void runMode(String mode, int n) {
+    Registry registry = createRegistry(mode);
+    for (int i = 0; i < GAUGES; ++i) {
+      AtomicLong value = new AtomicLong(i);
+      GAUGE_VALUES.add(value);
+      PolledMeter.using(registry)
+          .withName("bench.gauge")
+          .withTag("id", Integer.toString(i))
+          .monitorValue(value);
+    }
+
+    System.out.printf("%-12s %14.1f %14.1f %14.1f %14.1f%n",
+        mode,
+        measure(registry, CompositeOverhead::runCachedCounter, n),
+        measure(registry, CompositeOverhead::runCachedTimer, n),
+        measure(registry, CompositeOverhead::runLookupCounter, n),
+        measure(registry, CompositeOverhead::runGaugePoll, n));
+  }
+
+  /** Run a mode in a new JVM with the same classpath as this one. */
+  private static void fork(String mode, int n) throws Exception {
+    String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+    Process p = new ProcessBuilder(
+        java,
+        "-cp", System.getProperty("java.class.path"),
+        CompositeOverhead.class.getName(),
+        mode,
+        Integer.toString(n))
+        .inheritIO()
+        .start();
+    if (p.waitFor() != 0) {
+      throw new IllegalStateException("mode " + mode + " failed");
+    }
+  }
+
+  public static void main(String[] args) throws Exception {
+    String mode = args.length > 0 ? args[0] : "all";
+    int n = args.length > 1 ? Integer.parseInt(args[1]) : 10000000;
+
+    if ("all".equals(mode)) {
+      System.out.printf("%-12s %14s %14s %14s %14s%n",
+          "mode", "cached-counter", "cached-timer", "lookup-counter", "gauge-poll");
+      for (String m : MODES) {
+        fork(m, n);
+      }
+    } else {
+      runMode(mode, n);
+    }
+
+    // Polled gauges schedule tasks on non-daemon threads
+    System.exit(0);
+  }
+}
@@ -0,0 +1,217 @@
+package com.netflix.spectator.example.bench;
+
+import com.codahale.metrics.MetricRegistry;
+import com.netflix.servo.DefaultMonitorRegistry;
+import com.netflix.spectator.api.Clock;
+import com.netflix.spectator.api.DefaultRegistry;
+import com.netflix.spectator.api.Id;
+import com.netflix.spectator.api.Registry;
+import com.netflix.spectator.api.histogram.PercentileTimer;
+import com.netflix.spectator.api.patterns.PolledMeter;
+import com.netflix.spectator.metrics3.MetricsRegistry;
+import com.netflix.spectator.servo.ServoRegistry;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures the memory footprint of meters for the registry implementations used in the
+ * examples. For each meter type it creates a number of distinct ids and reports:
+ *
+ * <ul>
+ *   <li>Retained heap and time per id, just for creating the id objects.</li>
+ *   <li>Retained heap and time per meter, for registering the ids with the registry. This
+ *       is in addition to the cost of the id.</li>
+ *   <li>Heap that is still retained afterwards. For polled gauges this is after calling
+ *       {@link PolledMeter#remove(Registry, Id)}. Other types cannot be removed, so it is
+ *       after the whole registry is released. That only checks the registry does not leak,
+ *       it does not check that idle meters expire. The note column says which was used.</li>
+ * </ul>
+ *
+ * Percentile timers record samples across a range of latencies so that a realistic number
+ * of bucket counters are created. That makes them much larger than the other types, so a
+ * smaller count is used for them when running all types.
+ *
+ * The heap numbers are based on the used heap after forcing a GC, so they should only be
+ * trusted when the count is large enough to swamp other allocations in the JVM.
+ */
+public class Footprint {
+
+  private static final List<String> REGISTRIES = Arrays.asList("default", "servo", "metrics3");
+
+  private static final List<String> METER_TYPES = Arrays.asList(
+      "counter", "timer", "distribution-summary", "percentile-timer", "polled-gauge");
+
+  /** Divisor applied to the count for percentile timers when running all types. */
+  private static final int PERCENTILE_TIMER_DIVISOR = 100;
+
+  /** Samples from 1ms to 10s on a log scale for the percentile timers. */
+  private static final long[] SAMPLES = new long[20];
+  static {
+    for (int i = 0; i < SAMPLES.length; ++i) {
+      double millis = Math.pow(10.0, 4.0 * i / (SAMPLES.length - 1));
+      SAMPLES[i] = (long) (millis * 1e6);
+    }
+  }
+
+  private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+
+  // Static so the ids and values stay reachable until all of the measurements for a run
+  // are complete, locals could be treated as dead by the JIT once they are no longer used.
+  private static Id[] ids;
+  private static AtomicLong[] values;
+
+  private static Registry createRegistry(String name) {
+    switch (name) {
+      case "default":  return new DefaultRegistry(Clock.SYSTEM);
+      case "servo":    return new ServoRegistry(Clock.SYSTEM);
+      case "metrics3": return new MetricsRegistry(Clock.SYSTEM, new MetricRegistry());
+      default: throw new IllegalArgumentException("unknown registry: " + name);
+    }
+  }
+
+  /**
+   * Release the registry so the meters can be collected. The servo registry registers itself
+   * with the servo {@link DefaultMonitorRegistry}, so it needs to be unregistered or it will
+   * be retained for the rest of the process.
+   */
+  private static void release(Registry registry) {
+    if (registry instanceof ServoRegistry) {
+      DefaultMonitorRegistry.getInstance().unregister((ServoRegistry) registry);
+    }
+  }
+
+  private static void register(Registry registry, String type, Id id, AtomicLong value) {
+    switch (type) {
+      case "counter":
+        registry.counter(id).increment();
+        break;
+      case "timer":
+        registry.timer(id).record(42, TimeUnit.MILLISECONDS);
+        break;
+      case "distribution-summary":
+        registry.distributionSummary(id).record(42);
+        break;
+      case "percentile-timer":
+        PercentileTimer t = PercentileTimer.get(registry, id);
+        for (long sample : SAMPLES) {
+          t.record(sample, TimeUnit.NANOSECONDS);
+        }
+        break;
+      case "polled-gauge":
+        PolledMeter.using(registry).withId(id).monitorValue(value);
+        break;
+      default:
+        throw new IllegalArgumentException("unknown meter type: " + type);
+    }
+  }
+
+  /**
+   * Force a GC until the used heap stops shrinking and return the amount that is in use.
+   * A single call to {@code System.gc()} is only a hint and will often leave garbage behind.
+   */
+  private static long usedHeap() throws InterruptedException {
+    long previous = Long.MAX_VALUE;
+    long used = MEMORY.getHeapMemoryUsage().getUsed();
+    for (int i = 0; i < 10 && used < previous; ++i) {
+      System.gc();
+      Thread.sleep(100);
+      previous = used;
+      used = MEMORY.getHeapMemoryUsage().getUsed();
+    }
+    return used;
+  }
+
+  private static void run(String registryName, String type, int count) throws Exception {
+    // Values for the polled gauges need to be strongly referenced so they do not get
+    // collected. They are allocated before the baseline so they are not counted.
+    values = new AtomicLong[count];
+    if ("polled-gauge".equals(type)) {
+      for (int i = 0; i < count; ++i) {
+        values[i] = new AtomicLong(i);
+      }
+    }
+
+    Registry registry = createRegistry(registryName);
+    ids = new Id[count];
+    long baseline = usedHeap();
+
+    final String name = "footprint." + type;
+    long start = System.nanoTime();
+    for (int i = 0; i < count; ++i) {
+      ids[i] = registry.createId(name).withTag("id", Integer.toString(i));
+    }
+    long idTime = System.nanoTime() - start;
+    long idHeap = usedHeap();
+
+    start = System.nanoTime();
+    for (int i = 0; i < count; ++i) {
+      register(registry, type, ids[i], values[i]);
+    }
+    long meterTime = System.nanoTime() - start;
+    long meterHeap = usedHeap();
+
+    String note;
+    if ("polled-gauge".equals(type)) {
+      for (Id id : ids) {
+        PolledMeter.remove(registry, id);
+      }
+      note = "after PolledMeter.remove";
+      if ("metrics3".equals(registryName)) {
+        note += ", gauges retained by MetricRegistry";
+      }
+    } else {
+      release(registry);
+      registry = null;
+      note = "after registry release";
+    }
+    long removedHeap = usedHeap();
+
+    if (registry != null) {
+      release(registry);
+    }
+
+    System.out.printf("%-9s %-21s %10d %12.1f %12.1f %12.1f %12.1f %14.1f  %s%n",
+        registryName,
+        type,
+        count,
+        (double) (idHeap - baseline) / count,
+        (double) idTime / count,
+        (double) (meterHeap - idHeap) / count,
+        (double) meterTime / count,
+        (double) (removedHeap - idHeap) / count,
+        note);
+
+    ids = null;
+    values = null;
+  }
+
+  private static List<String> select(String arg, List<String> all) {
+    return "all".equals(arg) ? all : Collections.singletonList(arg);
+  }
+
+  public static void main(String[] args) throws Exception {
+    List<String> registries = select(args.length > 0 ? args[0] : "all", REGISTRIES);
+    String typeArg = args.length > 1 ? args[1] : "all";
+    List<String> types = select(typeArg, METER_TYPES);
+    int count = args.length > 2 ? Integer.parseInt(args[2]) : 1000000;
+
+    System.out.printf("%-9s %-21s %10s %12s %12s %12s %12s %14s  %s%n",
+        "registry", "type", "count",
+        "id-bytes", "id-ns", "meter-bytes", "meter-ns", "retained", "note");
+    for (String registry : registries) {
+      for (String type : types) {
+        boolean scaleDown = "all".equals(typeArg) && "percentile-timer".equals(type);
+        run(registry, type, scaleDown ? Math.max(1, count / PERCENTILE_TIMER_DIVISOR) : count);
+      }
+    }
+
+    // Polled gauges schedule tasks on non-daemon threads
+    System.exit(0);
+  }
+}
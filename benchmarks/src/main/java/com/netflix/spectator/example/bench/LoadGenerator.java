@@ -0,0 +1,78 @@
+package com.netflix.spectator.example.bench;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Simple load generator for the example server. A set of client threads send requests as
+ * fast as possible for a fixed duration using keep-alive connections. The client threads
+ * are spread evenly across the provided URLs.
+ */
+final class LoadGenerator {
+
+  private LoadGenerator() {
+  }
+
+  private static void drain(InputStream in) throws IOException {
+    if (in != null) {
+      byte[] buffer = new byte[4096];
+      try {
+        while (in.read(buffer) != -1) {
+          // read the full response so the connection can be reused
+        }
+      } finally {
+        in.close();
+      }
+    }
+  }
+
+  private static void request(URL url) throws IOException {
+    HttpURLConnection con = (HttpURLConnection) url.openConnection();
+    int status = con.getResponseCode();
+    drain(status >= 400 ? con.getErrorStream() : con.getInputStream());
+  }
+
+  /** Run the clients for the specified duration and return the number of requests. */
+  static long run(List<URL> urls, int threads, long seconds) throws Exception {
+    AtomicBoolean running = new AtomicBoolean(true);
+    AtomicLong requests = new AtomicLong();
+    AtomicLong errors = new AtomicLong();
+
+    List<Thread> clients = new ArrayList<>();
+    for (int i = 0; i < threads; ++i) {
+      final URL url = urls.get(i % urls.size());
+      Thread t = new Thread(() -> {
+        long n = 0;
+        while (running.get()) {
+          try {
+            request(url);
+            ++n;
+          } catch (IOException e) {
+            errors.incrementAndGet();
+          }
+        }
+        requests.addAndGet(n);
+      }, "Client-" + i);
+      t.start();
+      clients.add(t);
+    }
+
+    Thread.sleep(TimeUnit.SECONDS.toMillis(seconds));
+    running.set(false);
+    for (Thread t : clients) {
+      t.join();
+    }
+
+    if (errors.get() > 0) {
+      System.err.println("WARNING: " + errors.get() + " requests failed");
+    }
+    return requests.get();
+  }
+}
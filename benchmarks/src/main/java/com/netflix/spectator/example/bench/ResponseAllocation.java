@@ -0,0 +1,91 @@
+package com.netflix.spectator.example.bench;
+
+import com.netflix.spectator.api.Clock;
+import com.netflix.spectator.api.DefaultRegistry;
+import com.netflix.spectator.api.Registry;
+import com.netflix.spectator.example.Server;
+
+import java.lang.management.ManagementFactory;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures the bytes allocated by the example {@link Server} for each response. The
+ * allocations are tracked for the server dispatcher and request threads using the
+ * per-thread allocation counters of the JVM, so allocations by the client threads running
+ * in the same JVM are not included. Two cases are measured:
+ *
+ * <ul>
+ *   <li><b>status</b>: small responses from the pre-encoded response cache.</li>
+ *   <li><b>static</b>: a larger body served from a memory mapped file.</li>
+ * </ul>
+ */
+public class ResponseAllocation {
+
+  private static final long WARMUP_SECONDS = 5;
+
+  private static final com.sun.management.ThreadMXBean THREADS =
+      (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+  private static boolean isServerThread(Thread t) {
+    return t.getName().startsWith("HttpServer-") || t.getName().equals("HTTP-Dispatcher");
+  }
+
+  /** Total bytes allocated so far by the server threads. */
+  private static long serverAllocatedBytes() {
+    long total = 0L;
+    for (Thread t : Thread.getAllStackTraces().keySet()) {
+      if (isServerThread(t)) {
+        total += Math.max(0L, THREADS.getThreadAllocatedBytes(t.getId()));
+      }
+    }
+    return total;
+  }
+
+  private static void report(String name, URL url, int threads, long seconds) throws Exception {
+    List<URL> urls = Collections.singletonList(url);
+
+    // Warmup also ensures all of the request threads in the pool have been created
+    LoadGenerator.run(urls, threads, WARMUP_SECONDS);
+
+    long start = serverAllocatedBytes();
+    long requests = LoadGenerator.run(urls, threads, seconds);
+    long allocated = serverAllocatedBytes() - start;
+    System.out.printf("%-8s %12d %16.1f%n", name, requests, (double) allocated / requests);
+  }
+
+  public static void main(String[] args) throws Exception {
+    if (!THREADS.isThreadAllocatedMemorySupported()) {
+      throw new IllegalStateException("thread allocated memory is not supported by this JVM");
+    }
+    THREADS.setThreadAllocatedMemoryEnabled(true);
+
+    int threads = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+    long seconds = args.length > 1 ? Long.parseLong(args[1]) : 30;
+    int fileSize = args.length > 2 ? Integer.parseInt(args[2]) : 1024 * 1024;
+
+    Path dir = Files.createTempDirectory("spectator-bench");
+    Path file = dir.resolve("body.bin");
+    byte[] data = new byte[fileSize];
+    new Random().nextBytes(data);
+    Files.write(file, data);
+
+    Registry registry = new DefaultRegistry(Clock.SYSTEM);
+    Server server = new Server(registry, 1, 10, dir);
+    try {
+      final int port = server.addresses().get(0).getPort();
+      System.out.printf("%-8s %12s %16s%n", "case", "requests", "bytes/response");
+      report("status", new URL("http://localhost:" + port + "/"), threads, seconds);
+      report("static", new URL("http://localhost:" + port + "/static/body.bin"), threads, seconds);
+    } finally {
+      server.shutdown();
+      Files.delete(file);
+      Files.delete(dir);
+    }
+  }
+}
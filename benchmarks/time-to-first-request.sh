@@ -0,0 +1,99 @@
+#!/bin/bash
+#
+# Measures the time from launching the servo and metrics3 examples until they respond to
+# the first request. Each ref is checked out into a temporary worktree so that the startup
+# for different versions can be compared, for example:
+#
+#   $ benchmarks/time-to-first-request.sh <baseline-ref> HEAD
+#
+# Set RUNS to change the number of runs for each ref and project, default is 5. Port 54321
+# must be free before running.
+
+set -e -o pipefail
+
+if [ $# -eq 0 ]; then
+  echo "usage: $0 <ref>..." >&2
+  exit 1
+fi
+
+RUNS=${RUNS:-5}
+PROJECTS=${PROJECTS:-"servo metrics3"}
+URL=http://localhost:54321/
+TIMEOUT_MS=120000
+
+root=$(git rev-parse --show-toplevel)
+tmp=$(mktemp -d)
+
+cleanup() {
+  cd "$root"
+  for dir in "$tmp"/ref-*; do
+    [ -d "$dir" ] && git worktree remove --force "$dir" > /dev/null 2>&1
+  done
+  rm -rf "$tmp"
+}
+trap cleanup EXIT
+
+# Init script so the classpath can be obtained for any version of the build
+cat > "$tmp/classpath.gradle" <<'EOF'
+allprojects {
+  afterEvaluate { p ->
+    if (p.plugins.hasPlugin('java')) {
+      p.tasks.create('printRuntimeClasspath') {
+        dependsOn p.sourceSets.main.runtimeClasspath
+        doLast { println p.sourceSets.main.runtimeClasspath.asPath }
+      }
+    }
+  }
+}
+EOF
+
+main_class() {
+  case $1 in
+    servo)    echo "com.netflix.spectator.example.servo.Main" ;;
+    metrics3) echo "com.netflix.spectator.example.metrics3.Main" ;;
+    *)        echo "unknown project: $1" >&2; exit 1 ;;
+  esac
+}
+
+now_ms() {
+  date +%s%3N
+}
+
+printf "%-16s %-10s %10s\n" "ref" "project" "ms"
+i=0
+for ref in "$@"; do
+  i=$((i + 1))
+  dir="$tmp/ref-$i"
+  git worktree add --detach "$dir" "$ref" > /dev/null 2>&1
+  for project in $PROJECTS; do
+    cp=$(cd "$dir" && ./gradlew -q -I "$tmp/classpath.gradle" "$project:printRuntimeClasspath" | tail -1)
+    if [ -z "$cp" ]; then
+      echo "failed to get classpath for $ref $project" >&2
+      exit 1
+    fi
+    for run in $(seq "$RUNS"); do
+      if curl -s -o /dev/null "$URL"; then
+        echo "port is already in use: $URL" >&2
+        exit 1
+      fi
+      start=$(now_ms)
+      (cd "$dir/$project" && exec java -cp "$cp" "$(main_class "$project")" > /dev/null 2>&1) &
+      pid=$!
+      until curl -s -o /dev/null "$URL"; do
+        if ! kill -0 $pid 2> /dev/null; then
+          echo "$ref $project exited before responding" >&2
+          exit 1
+        fi
+        if [ $(($(now_ms) - start)) -gt $TIMEOUT_MS ]; then
+          echo "$ref $project did not respond within ${TIMEOUT_MS}ms" >&2
+          kill $pid
+          exit 1
+        fi
+        sleep 0.01
+      done
+      printf "%-16s %-10s %10d\n" "$ref" "$project" $(($(now_ms) - start))
+      kill $pid
+      wait $pid 2> /dev/null || true
+    done
+  done
+done
@@ -4,11 +4,11 @@ import com.codahale.metrics.CsvReporter;
 import com.codahale.metrics.JmxReporter;
 import com.codahale.metrics.MetricRegistry;
 import com.google.inject.AbstractModule;
-import com.google.inject.Provides;
 import com.netflix.iep.guice.GuiceHelper;
 import com.netflix.spectator.api.Clock;
 import com.netflix.spectator.api.Registry;
 import com.netflix.spectator.example.Server;
+import com.netflix.spectator.example.Startup;
 import com.netflix.spectator.metrics3.MetricsRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -46,27 +46,38 @@ public class Main {
   }
 
   public static void main(String[] args) throws Exception {
+    final MetricRegistry codaRegistry = new MetricRegistry();
+    final Registry registry = new MetricsRegistry(Clock.SYSTEM, codaRegistry);
+    final Startup startup = new Startup(registry);
+
     GuiceHelper helper = new GuiceHelper();
-    helper.start(new AbstractModule() {
+    startup.run("guice", () -> helper.start(new AbstractModule() {
       @Override protected void configure() {
         bind(Clock.class).toInstance(Clock.SYSTEM);
+        bind(MetricRegistry.class).toInstance(codaRegistry);
+        bind(Registry.class).toInstance(registry);
         bind(Server.class).asEagerSingleton();
-        bind(ReportersManager.class).asEagerSingleton();
+        bind(ReportersManager.class);
       }
+    }));
 
-      @Provides
-      @Singleton
-      private MetricRegistry providesCodaRegistry() {
-        return new MetricRegistry();
-      }
+    helper.addShutdownHook();
 
-      @Provides
-      @Singleton
-      private Registry providesRegistry(Clock clock, MetricRegistry codaRegistry) {
-        return new MetricsRegistry(clock, codaRegistry);
-      }
-    });
+    // The server is already running, so if any later phase fails it needs to be stopped
+    // explicitly or the process would keep serving without the remaining phases
+    try {
+      startup.ready();
 
-    helper.addShutdownHook();
+      // Deferred until the server is accepting requests
+      startup.run("reporters", () -> helper.getInjector().getInstance(ReportersManager.class));
+    } catch (Exception e) {
+      LOGGER.error("startup failed, shutting down", e);
+      try {
+        helper.shutdown();
+      } catch (Exception ex) {
+        e.addSuppressed(ex);
+      }
+      throw e;
+    }
   }
 }
@@ -0,0 +1,19 @@
+package com.netflix.spectator.example;
+
+/**
+ * Scratch buffer for each thread used when copying request and response bodies.
+ */
+final class Buffers {
+
+  private static final int SIZE = 8192;
+
+  private static final ThreadLocal<byte[]> BUFFERS = ThreadLocal.withInitial(() -> new byte[SIZE]);
+
+  private Buffers() {
+  }
+
+  /** Get the buffer for the current thread. */
+  static byte[] get() {
+    return BUFFERS.get();
+  }
+}
@@ -0,0 +1,83 @@
+package com.netflix.spectator.example;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Immutable response with a pre-encoded body that is either on the heap or memory mapped
+ * from a file.
+ */
+final class Response {
+
+  /** Create a new response with the body stored on the heap. */
+  static Response fromBytes(int status, String contentType, byte[] body) {
+    return new Response(status, contentType, body.clone(), null);
+  }
+
+  /** Create a new response with the body memory mapped from a file. */
+  static Response fromFile(int status, String contentType, Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      final long size = channel.size();
+      if (size > Integer.MAX_VALUE) {
+        throw new IOException("file is too large to map: " + file);
+      }
+      ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+      return new Response(status, contentType, null, mapped);
+    }
+  }
+
+  private final int status;
+  private final String contentType;
+  private final byte[] bytes;
+  private final ByteBuffer mapped;
+
+  private Response(int status, String contentType, byte[] bytes, ByteBuffer mapped) {
+    this.status = status;
+    this.contentType = contentType;
+    this.bytes = bytes;
+    this.mapped = mapped;
+  }
+
+  int status() {
+    return status;
+  }
+
+  int length() {
+    return (bytes == null) ? mapped.remaining() : bytes.length;
+  }
+
+  /** Send the response and close the exchange. */
+  void send(HttpExchange exchange) throws IOException {
+    // Headers must be set before sendResponseHeaders or they will be ignored
+    exchange.getResponseHeaders().set("Content-Type", contentType);
+
+    // A length of 0 would use chunked encoding, -1 indicates there is no body
+    final int length = length();
+    exchange.sendResponseHeaders(status, (length == 0) ? -1 : length);
+    try {
+      OutputStream out = exchange.getResponseBody();
+      if (bytes != null) {
+        out.write(bytes);
+      } else {
+        write(out, mapped.duplicate());
+      }
+    } finally {
+      exchange.close();
+    }
+  }
+
+  private void write(OutputStream out, ByteBuffer buffer) throws IOException {
+    final byte[] chunk = Buffers.get();
+    while (buffer.hasRemaining()) {
+      final int n = Math.min(chunk.length, buffer.remaining());
+      buffer.get(chunk, 0, n);
+      out.write(chunk, 0, n);
+    }
+  }
+}
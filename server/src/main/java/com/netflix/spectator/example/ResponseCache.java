@@ -0,0 +1,38 @@
+package com.netflix.spectator.example;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Cache of responses keyed by status code and content type. The body is the text
+ * {@code status <code>}.
+ */
+final class ResponseCache {
+
+  private static final int MAX_STATUS = 600;
+
+  private final ConcurrentHashMap<String, AtomicReferenceArray<Response>> responses =
+      new ConcurrentHashMap<>();
+
+  /** Get the response for a given status and content type. */
+  Response get(int status, String contentType) {
+    if (status < 0 || status >= MAX_STATUS) {
+      throw new IllegalArgumentException("invalid status: " + status);
+    }
+
+    AtomicReferenceArray<Response> byStatus = responses.get(contentType);
+    if (byStatus == null) {
+      byStatus = responses.computeIfAbsent(contentType,
+          k -> new AtomicReferenceArray<>(MAX_STATUS));
+    }
+
+    Response response = byStatus.get(status);
+    if (response == null) {
+      byte[] body = ("status " + status + "\n").getBytes(StandardCharsets.UTF_8);
+      byStatus.compareAndSet(status, null, Response.fromBytes(status, contentType, body));
+      response = byStatus.get(status);
+    }
+    return response;
+  }
+}
@@ -13,13 +13,24 @@ import org.slf4j.LoggerFactory;
 import javax.annotation.PreDestroy;
 import javax.inject.Inject;
 import java.io.IOException;
-import java.io.OutputStream;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
 import java.net.InetSocketAddress;
-import java.util.Random;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
-public class Server implements HttpHandler {
+/**
+ * Simple HTTP server that responds with a random status code. Requests are handled by one or
+ * more acceptors that each listen on a separate port starting at 54321.
+ */
+public class Server {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(Server.class);
 
@@ -29,66 +40,208 @@ public class Server implements HttpHandler {
 
   private static final int PORT = 54321;
 
-  private final Random random = new Random();
+  private static final int DEFAULT_THREADS = 10;
 
-  private final HttpServer httpServer;
+  private static final String STATIC_PREFIX = "/static/";
+
+  private static final String TEXT_PLAIN = "text/plain";
+
+  private final List<Acceptor> acceptors = new ArrayList<>();
+
+  private final ResponseCache responses = new ResponseCache();
+  private final StaticFiles staticFiles;
+  private final long maxRequestSize;
 
   private final Registry registry;
-  private final Timer requestLatency;
-  private final DistributionSummary requestSize;
+
+  private final AtomicBoolean firstRequest = new AtomicBoolean(true);
 
   @Inject
   public Server(Registry registry) throws IOException {
-    this.registry = registry;
-    requestLatency = registry.timer("server.requestLatency");
-    requestSize = registry.distributionSummary("server.requestSize");
+    this(
+        registry,
+        Integer.parseInt(System.getProperty("spectator.example.acceptors", "1")),
+        Integer.parseInt(System.getProperty("spectator.example.threads", "" + DEFAULT_THREADS)),
+        getStaticDirectory());
+  }
 
-    ThreadPoolExecutor executor = (ThreadPoolExecutor)
-        Executors.newFixedThreadPool(10, r -> new Thread(r, "HttpServer"));
-    registry.gauge("server.threadsBusy", executor, ThreadPoolExecutor::getActiveCount);
-    registry.gauge("server.threadsMax",  executor, ThreadPoolExecutor::getMaximumPoolSize);
-    registry.gauge("server.queueSize",   executor, e -> e.getQueue().size());
+  public Server(Registry registry, int numAcceptors, int numThreads) throws IOException {
+    this(registry, numAcceptors, numThreads, null);
+  }
 
-    httpServer = HttpServer.create(new InetSocketAddress(PORT), 100);
-    httpServer.setExecutor(executor);
-    httpServer.createContext("/", this);
-    httpServer.start();
+  /**
+   * Create a new server. The threads are split evenly across the acceptors. If the static
+   * directory is not null, then requests for {@code /static/<file>} will be served from the
+   * files in that directory.
+   */
+  public Server(Registry registry, int numAcceptors, int numThreads, Path staticDirectory)
+      throws IOException {
+    if (numAcceptors < 1) {
+      throw new IllegalArgumentException("number of acceptors must be at least 1");
+    }
+    if (numThreads < numAcceptors) {
+      throw new IllegalArgumentException(
+          "number of threads (" + numThreads + ") must be at least the number of acceptors ("
+              + numAcceptors + ")");
+    }
+    this.registry = registry;
+    this.staticFiles = (staticDirectory == null) ? null : new StaticFiles(staticDirectory);
+    this.maxRequestSize = getMaxRequestSize();
+    try {
+      for (int i = 0; i < numAcceptors; ++i) {
+        final int threads = numThreads / numAcceptors + (i < numThreads % numAcceptors ? 1 : 0);
+        acceptors.add(new Acceptor(i, threads));
+      }
+    } catch (IOException e) {
+      shutdown();
+      throw e;
+    }
 
-    LOGGER.info("server started on port " + PORT);
+    final String ports = (numAcceptors == 1)
+        ? "port " + PORT
+        : "ports " + PORT + "-" + (PORT + numAcceptors - 1);
+    LOGGER.info("server started with " + numAcceptors + " acceptors and " + numThreads
+        + " threads on " + ports);
+  }
+
+  /** Addresses that the acceptors are listening on. */
+  public List<InetSocketAddress> addresses() {
+    List<InetSocketAddress> addrs = new ArrayList<>();
+    for (Acceptor acceptor : acceptors) {
+      addrs.add(acceptor.httpServer.getAddress());
+    }
+    return addrs;
   }
 
   @PreDestroy
   public void shutdown() {
-    httpServer.stop(0);
+    for (Acceptor acceptor : acceptors) {
+      acceptor.httpServer.stop(0);
+      acceptor.executor.shutdown();
+    }
   }
 
-  @Override
-  public void handle(HttpExchange exchange) throws IOException {
-    requestLatency.record(() -> {
-      requestSize.record(getRequestSize(exchange));
-
-      int status = getStatus();
-      final Id requestCountId = registry.createId("server.requestCount")
-          .withTag("method", exchange.getRequestMethod())
-          .withTag("status", "" + status)
-          .withTag("agent",  getUserAgent(exchange));
-      registry.counter(requestCountId).increment();
-
-      try {
-        byte[] msg = ("status " + status + "\n").getBytes("UTF-8");
-        exchange.sendResponseHeaders(status, msg.length);
-        exchange.getResponseHeaders().add("Content-Type", "text/plain");
-        try (OutputStream out = exchange.getResponseBody()) {
-          out.write(msg);
+  private final class Acceptor implements HttpHandler {
+    private final String name;
+    private final ThreadPoolExecutor executor;
+    private final HttpServer httpServer;
+    private final Timer requestLatency;
+    private final DistributionSummary requestSize;
+    private final DistributionSummary requestDeclaredSize;
+
+    Acceptor(int index, int threads) throws IOException {
+      name = Integer.toString(index);
+      requestLatency = registry.timer("server.requestLatency", "acceptor", name);
+      requestSize = registry.distributionSummary("server.requestSize", "acceptor", name);
+      requestDeclaredSize =
+          registry.distributionSummary("server.requestDeclaredSize", "acceptor", name);
+
+      executor = (ThreadPoolExecutor)
+          Executors.newFixedThreadPool(threads, r -> new Thread(r, "HttpServer-" + name));
+      registry.gauge(registry.createId("server.threadsBusy", "acceptor", name),
+          executor, ThreadPoolExecutor::getActiveCount);
+      registry.gauge(registry.createId("server.threadsMax", "acceptor", name),
+          executor, ThreadPoolExecutor::getMaximumPoolSize);
+      registry.gauge(registry.createId("server.queueSize", "acceptor", name),
+          executor, e -> e.getQueue().size());
+
+      httpServer = HttpServer.create(new InetSocketAddress(PORT + index), 100);
+      httpServer.setExecutor(executor);
+      httpServer.createContext("/", this);
+      httpServer.start();
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+      if (firstRequest.compareAndSet(true, false)) {
+        recordTimeToFirstRequest();
+      }
+
+      requestLatency.record(() -> {
+        try {
+          final Response response = readRequestBody(exchange)
+              ? getResponse(exchange)
+              : responses.get(413, TEXT_PLAIN);
+          final Id requestCountId = registry.createId("server.requestCount")
+              .withTag("acceptor", name)
+              .withTag("method", exchange.getRequestMethod())
+              .withTag("status", "" + response.status())
+              .withTag("agent",  getUserAgent(exchange));
+          registry.counter(requestCountId).increment();
+
+          response.send(exchange);
+        } catch (Exception e) {
+          throw new IllegalStateException(e);
+        }
+      });
+    }
+
+    /** Read and discard the request body. Returns false if it is larger than the max. */
+    private boolean readRequestBody(HttpExchange exchange) throws IOException {
+      final long declared = getDeclaredSize(exchange);
+      if (declared >= 0) {
+        requestDeclaredSize.record(declared);
+      }
+      if (declared > maxRequestSize) {
+        return false;
+      }
+
+      final byte[] buffer = Buffers.get();
+      final InputStream in = exchange.getRequestBody();
+      long observed = 0L;
+      int n;
+      while ((n = in.read(buffer)) != -1) {
+        observed += n;
+        if (observed > maxRequestSize) {
+          requestSize.record(observed);
+          return false;
         }
-      } catch (Exception e) {
-        throw new IllegalStateException(e);
       }
-    });
+      requestSize.record(observed);
+      return true;
+    }
+  }
+
+  /**
+   * Max size of a request body in bytes. Rejecting on the declared size does not stop the
+   * upload for clients that send {@code Expect: 100-continue}. The JDK server sends the
+   * {@code 100 Continue} before the handler runs, so those clients will send the body
+   * anyway. The JDK server then drains up to 64KB of the unread body when the exchange is
+   * closed.
+   */
+  private static long getMaxRequestSize() {
+    return Long.parseLong(System.getProperty("spectator.example.maxRequestSize", "1048576"));
+  }
+
+  private static Path getStaticDirectory() {
+    String dir = System.getProperty("spectator.example.staticDirectory");
+    return (dir == null) ? null : Paths.get(dir);
+  }
+
+  /**
+   * Time from JVM start until the first request. This includes any time waiting for a client,
+   * so it is only a measure of startup if a client is polling, use
+   * {@code startup.timeToReady} for readiness.
+   */
+  private void recordTimeToFirstRequest() {
+    final long jvmStart = ManagementFactory.getRuntimeMXBean().getStartTime();
+    final long duration = registry.clock().wallTime() - jvmStart;
+    registry.timer("server.timeToFirstRequest").record(duration, TimeUnit.MILLISECONDS);
+    LOGGER.info("first request received " + duration + "ms after jvm start");
+  }
+
+  private Response getResponse(HttpExchange exchange) throws IOException {
+    final String path = exchange.getRequestURI().getPath();
+    if (staticFiles != null && path.startsWith(STATIC_PREFIX)) {
+      Response response = staticFiles.get(path.substring(STATIC_PREFIX.length()));
+      return (response == null) ? responses.get(404, TEXT_PLAIN) : response;
+    }
+    return responses.get(getStatus(), TEXT_PLAIN);
   }
 
   private int getStatus() {
-    double p = random.nextDouble();
+    // Use thread local random to avoid contention between the request threads
+    double p = ThreadLocalRandom.current().nextDouble();
     if (p < 0.8)
       return 200;
     else if (p < 0.95)
@@ -97,12 +250,12 @@ public class Server implements HttpHandler {
       return 500;
   }
 
-  private int getRequestSize(HttpExchange exchange) {
+  private long getDeclaredSize(HttpExchange exchange) {
     String length = exchange.getRequestHeaders().getFirst("Content-Length");
     try {
-      return (length == null) ? -1 : Integer.parseInt(length);
+      return (length == null) ? -1L : Long.parseLong(length);
     } catch (NumberFormatException e) {
-      return -1;
+      return -1L;
     }
   }
 
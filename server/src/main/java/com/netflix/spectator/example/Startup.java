@@ -0,0 +1,84 @@
+package com.netflix.spectator.example;
+
+import com.netflix.spectator.api.Registry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Helper for timing the phases of application startup. Each phase is recorded to the
+ * {@code startup.phaseTime} timer. Once the application can serve requests, call
+ * {@link #ready()} to wait for background phases and record {@code startup.timeToReady}.
+ * Work that is not needed to serve requests, such as reporters, can be run as phases after
+ * that point.
+ */
+public class Startup {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(Startup.class);
+
+  /** Step to execute as part of startup. */
+  public interface Step {
+    void run() throws Exception;
+  }
+
+  private final Registry registry;
+  private final ExecutorService executor;
+  private final List<CompletableFuture<Void>> pending = new ArrayList<>();
+
+  public Startup(Registry registry) {
+    this.registry = registry;
+    this.executor = Executors.newCachedThreadPool(r -> {
+      Thread t = new Thread(r, "Startup");
+      t.setDaemon(true);
+      return t;
+    });
+  }
+
+  private void time(String phase, Step step) {
+    final long start = registry.clock().monotonicTime();
+    try {
+      step.run();
+    } catch (Exception e) {
+      throw new IllegalStateException("startup phase " + phase + " failed", e);
+    }
+    final long duration = registry.clock().monotonicTime() - start;
+    registry.timer("startup.phaseTime", "phase", phase).record(duration, TimeUnit.NANOSECONDS);
+    LOGGER.info("startup phase " + phase + " completed in "
+        + TimeUnit.NANOSECONDS.toMillis(duration) + "ms");
+  }
+
+  /** Run a phase on the current thread. */
+  public void run(String phase, Step step) {
+    time(phase, step);
+  }
+
+  /** Run a phase in the background. */
+  public synchronized void runAsync(String phase, Step step) {
+    pending.add(CompletableFuture.runAsync(() -> time(phase, step), executor));
+  }
+
+  /** Wait for background phases to complete and record the time since the JVM started. */
+  public void ready() {
+    final CompletableFuture<?>[] futures;
+    synchronized (this) {
+      futures = pending.toArray(new CompletableFuture<?>[pending.size()]);
+    }
+    try {
+      CompletableFuture.allOf(futures).join();
+    } finally {
+      executor.shutdown();
+    }
+
+    final long jvmStart = ManagementFactory.getRuntimeMXBean().getStartTime();
+    final long duration = registry.clock().wallTime() - jvmStart;
+    registry.timer("startup.timeToReady").record(duration, TimeUnit.MILLISECONDS);
+    LOGGER.info("ready " + duration + "ms after jvm start");
+  }
+}
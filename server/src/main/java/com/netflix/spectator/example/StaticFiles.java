@@ -0,0 +1,51 @@
+package com.netflix.spectator.example;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Serves files from a directory. Files are memory mapped when first requested and the
+ * mapping is reused until the server is restarted.
+ */
+final class StaticFiles {
+
+  private static final String DEFAULT_CONTENT_TYPE = "application/octet-stream";
+
+  private final Path directory;
+  private final ConcurrentHashMap<Path, Response> responses = new ConcurrentHashMap<>();
+
+  StaticFiles(Path directory) throws IOException {
+    this.directory = directory.toRealPath();
+  }
+
+  /** Get the response for a file in the directory or null if there is no such file. */
+  Response get(String name) throws IOException {
+    final Path requested = directory.resolve(name);
+    if (!Files.isRegularFile(requested)) {
+      return null;
+    }
+
+    // Use the real path so that symlinks cannot point outside of the directory and
+    // different names for the same file share a mapping
+    final Path file = requested.toRealPath();
+    if (!file.startsWith(directory)) {
+      return null;
+    }
+
+    Response response = responses.get(file);
+    if (response == null) {
+      String contentType = Files.probeContentType(file);
+      if (contentType == null) {
+        contentType = DEFAULT_CONTENT_TYPE;
+      }
+      response = Response.fromFile(200, contentType, file);
+      Response previous = responses.putIfAbsent(file, response);
+      if (previous != null) {
+        response = previous;
+      }
+    }
+    return response;
+  }
+}
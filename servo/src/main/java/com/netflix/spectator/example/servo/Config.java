@@ -69,6 +69,14 @@ public final class Config {
     return Boolean.valueOf(System.getProperty("spectator.example.gcExtEnabled", "true"));
   }
 
+  /**
+   * Should the registry be passed directly to the metrics extensions instead of going through
+   * the global composite registry? Default is false.
+   */
+  public static boolean isDirectRegistryEnabled() {
+    return Boolean.valueOf(System.getProperty("spectator.example.directRegistryEnabled", "false"));
+  }
+
   /**
    * Get config for the atlas observer.
    */
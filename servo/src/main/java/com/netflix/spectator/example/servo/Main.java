@@ -1,7 +1,6 @@
 package com.netflix.spectator.example.servo;
 
 import com.google.inject.AbstractModule;
-import com.google.inject.Provides;
 import com.netflix.iep.guice.GuiceHelper;
 import com.netflix.servo.publish.AsyncMetricObserver;
 import com.netflix.servo.publish.BasicMetricFilter;
@@ -20,12 +19,14 @@ import com.netflix.spectator.api.Clock;
 import com.netflix.spectator.api.Registry;
 import com.netflix.spectator.api.Spectator;
 import com.netflix.spectator.example.Server;
+import com.netflix.spectator.example.Startup;
 import com.netflix.spectator.gc.GcLogger;
 import com.netflix.spectator.jvm.Jmx;
 import com.netflix.spectator.servo.ServoRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.inject.Inject;
 import javax.inject.Singleton;
 import java.io.File;
 import java.net.InetAddress;
@@ -88,15 +89,26 @@ public class Main {
     PollScheduler.getInstance().addPoller(task, 10, TimeUnit.SECONDS);
   }
 
-  private static void initMetricsExtensions() throws Exception {
-    if (Config.isGcExtEnabled()) {
-      LOGGER.info("garbage collection extension enabled");
-      GC_LOGGER.start(null);
-    }
+  /**
+   * Starts the GC and JVM extensions. By default they write through the global composite
+   * registry, in direct mode the JVM extension is given the servo registry so updates skip
+   * the composite dispatch. The extensions are independent of each other and the server, so
+   * they are started in the background.
+   */
+  @Singleton
+  private static class ExtensionsManager {
+    @Inject
+    ExtensionsManager(Registry registry, Startup startup) {
+      if (Config.isGcExtEnabled()) {
+        LOGGER.info("garbage collection extension enabled");
+        startup.runAsync("gcExt", () -> GC_LOGGER.start(null));
+      }
 
-    if (Config.isJvmExtEnabled()) {
-      LOGGER.info("jvm extension enabled");
-      Jmx.registerStandardMXBeans(Spectator.globalRegistry());
+      if (Config.isJvmExtEnabled()) {
+        LOGGER.info("jvm extension enabled");
+        final Registry r = Config.isDirectRegistryEnabled() ? registry : Spectator.globalRegistry();
+        startup.runAsync("jvmExt", () -> Jmx.registerStandardMXBeans(r));
+      }
     }
   }
 
@@ -119,26 +131,55 @@ public class Main {
     schedule(new MonitorRegistryMetricPoller(), observers);
   }
 
+  private static Registry createRegistry() {
+    Registry r = new ServoRegistry(Clock.SYSTEM);
+    if (!Config.isDirectRegistryEnabled()) {
+      Spectator.globalRegistry().add(r);
+    } else if (Config.isGcExtEnabled()) {
+      // GcLogger always writes to the global registry
+      LOGGER.info("direct registry enabled, gc extension will still use global registry");
+      Spectator.globalRegistry().add(r);
+    } else {
+      LOGGER.info("direct registry enabled");
+    }
+    return r;
+  }
+
   public static void main(String[] args) throws Exception {
-    initMetricsExtensions();
-    initMetricsPublishing();
+    final Registry registry = createRegistry();
+    final Startup startup = new Startup(registry);
 
     GuiceHelper helper = new GuiceHelper();
-    helper.start(new AbstractModule() {
+    startup.run("guice", () -> helper.start(new AbstractModule() {
       @Override protected void configure() {
         bind(Clock.class).toInstance(Clock.SYSTEM);
+        bind(Registry.class).toInstance(registry);
+        bind(Startup.class).toInstance(startup);
+        bind(ExtensionsManager.class).asEagerSingleton();
         bind(Server.class).asEagerSingleton();
       }
-
-      @Provides
-      @Singleton
-      private Registry providesRegistry(Clock clock) {
-        Registry r = new ServoRegistry(clock);
-        Spectator.globalRegistry().add(r);
-        return r;
-      }
-    });
+    }));
 
     helper.addShutdownHook();
+
+    // The server is already running, so if any later phase fails it needs to be stopped
+    // explicitly or the process would keep serving without the remaining phases
+    try {
+      startup.ready();
+
+      // Deferred until the server is accepting requests
+      startup.run("publishing", Main::initMetricsPublishing);
+    } catch (Exception e) {
+      LOGGER.error("startup failed, shutting down", e);
+      try {
+        if (PollScheduler.getInstance().isStarted()) {
+          PollScheduler.getInstance().stop();
+        }
+        helper.shutdown();
+      } catch (Exception ex) {
+        e.addSuppressed(ex);
+      }
+      throw e;
+    }
   }
 }